@@ -1,11 +1,14 @@
 package it.mcexp.pvpsync;
 
+import it.mcexp.pvpsync.command.PvPSyncCommand;
 import it.mcexp.pvpsync.db.Database;
+import it.mcexp.pvpsync.db.SeasonRepository;
 import it.mcexp.pvpsync.db.StatsRepository;
 import it.mcexp.pvpsync.listener.PvPListener;
 import it.mcexp.pvpsync.papi.PvPSyncExpansion;
 import it.mcexp.pvpsync.service.StatsService;
 import org.bukkit.Bukkit;
+import org.bukkit.command.PluginCommand;
 import org.bukkit.plugin.java.JavaPlugin;
 
 public final class PvPStatsSync extends JavaPlugin {
@@ -21,10 +24,19 @@ public final class PvPStatsSync extends JavaPlugin {
         this.database.init(); // pool + create table
 
         StatsRepository repo = new StatsRepository(database);
-        this.statsService = new StatsService(this, repo);
+        SeasonRepository seasons = new SeasonRepository(database);
+        this.statsService = new StatsService(this, repo, seasons);
+        this.statsService.resumeArchival();
 
         Bukkit.getPluginManager().registerEvents(new PvPListener(statsService), this);
 
+        PluginCommand cmd = getCommand("pvpsync");
+        if (cmd != null) {
+            PvPSyncCommand executor = new PvPSyncCommand(this, statsService);
+            cmd.setExecutor(executor);
+            cmd.setTabCompleter(executor);
+        }
+
         if (Bukkit.getPluginManager().getPlugin("PlaceholderAPI") != null) {
             new PvPSyncExpansion(this, statsService).register();
             getLogger().info("PlaceholderAPI found: expansion registered.");
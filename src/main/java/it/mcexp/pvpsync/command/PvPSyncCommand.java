@@ -0,0 +1,226 @@
+package it.mcexp.pvpsync.command;
+
+import it.mcexp.pvpsync.service.StatsService;
+import it.mcexp.pvpsync.db.SeasonRepository.Season;
+import it.mcexp.pvpsync.db.StatsRepository.LeaderEntry;
+import org.bukkit.Bukkit;
+import org.bukkit.ChatColor;
+import org.bukkit.command.Command;
+import org.bukkit.command.CommandSender;
+import org.bukkit.command.TabExecutor;
+import org.bukkit.plugin.java.JavaPlugin;
+
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+public final class PvPSyncCommand implements TabExecutor {
+
+    private final JavaPlugin plugin;
+    private final StatsService stats;
+
+    public PvPSyncCommand(JavaPlugin plugin, StatsService stats) {
+        this.plugin = plugin;
+        this.stats = stats;
+    }
+
+    @Override
+    public boolean onCommand(CommandSender sender, Command command, String label, String[] args) {
+        if (args.length == 0) {
+            sender.sendMessage(ChatColor.YELLOW + "Usage: /" + label + " top [page] | season <list|top|rotate>");
+            return true;
+        }
+
+        switch (args[0].toLowerCase()) {
+            case "top":
+                return top(sender, label, args);
+            case "season":
+                return season(sender, label, args);
+            default:
+                sender.sendMessage(ChatColor.YELLOW + "Usage: /" + label + " top [page] | season <list|top|rotate>");
+                return true;
+        }
+    }
+
+    /* =========================
+     *  TOP KILLS
+     *  /pvpsync top <page>
+     * ========================= */
+    private boolean top(CommandSender sender, String label, String[] args) {
+        if (!sender.hasPermission("pvpsync.top")) {
+            sender.sendMessage(ChatColor.RED + "You don't have permission.");
+            return true;
+        }
+
+        Integer page = parsePage(sender, args, 1);
+        if (page == null) return true;
+
+        sendPage(sender, "Top kills", stats.getTopKillsPage(page), page, "/" + label + " top ");
+        return true;
+    }
+
+    /* =========================
+     *  SEASONS
+     *  /pvpsync season list
+     *  /pvpsync season top <id> [page]
+     *  /pvpsync season rotate confirm
+     * ========================= */
+    private boolean season(CommandSender sender, String label, String[] args) {
+        String sub = args.length >= 2 ? args[1].toLowerCase() : "";
+
+        switch (sub) {
+            case "list": {
+                if (!sender.hasPermission("pvpsync.season")) {
+                    sender.sendMessage(ChatColor.RED + "You don't have permission.");
+                    return true;
+                }
+
+                stats.getSeasons().thenAccept(list ->
+                        Bukkit.getScheduler().runTask(plugin, () -> {
+                            if (list.isEmpty()) {
+                                sender.sendMessage(ChatColor.GRAY + "No seasons found.");
+                                return;
+                            }
+
+                            SimpleDateFormat fmt = new SimpleDateFormat("yyyy-MM-dd");
+                            sender.sendMessage(ChatColor.GOLD + "Seasons");
+                            for (Season s : list) {
+                                String status = s.endedAt() == 0 ? ChatColor.GREEN + "current"
+                                        : s.archived() ? ChatColor.GRAY + "archived"
+                                        : ChatColor.YELLOW + "archiving";
+                                sender.sendMessage(ChatColor.YELLOW + "#" + s.id() + " "
+                                        + ChatColor.WHITE + fmt.format(new Date(s.startedAt()))
+                                        + (s.endedAt() == 0 ? "" : " → " + fmt.format(new Date(s.endedAt())))
+                                        + ChatColor.GRAY + " - " + status);
+                            }
+                        })
+                );
+                return true;
+            }
+
+            case "top": {
+                if (!sender.hasPermission("pvpsync.season")) {
+                    sender.sendMessage(ChatColor.RED + "You don't have permission.");
+                    return true;
+                }
+                if (args.length < 3) {
+                    sender.sendMessage(ChatColor.YELLOW + "Usage: /" + label + " season top <id> [page]");
+                    return true;
+                }
+
+                int seasonId;
+                try {
+                    seasonId = Integer.parseInt(args[2]);
+                } catch (NumberFormatException ex) {
+                    sender.sendMessage(ChatColor.RED + "Invalid season: " + args[2]);
+                    return true;
+                }
+
+                Integer page = parsePage(sender, args, 3);
+                if (page == null) return true;
+
+                sendPage(sender, "Season " + seasonId + " top kills",
+                        stats.getSeasonTopKillsPage(seasonId, page), page,
+                        "/" + label + " season top " + seasonId + " ");
+                return true;
+            }
+
+            case "rotate": {
+                if (!sender.hasPermission("pvpsync.admin")) {
+                    sender.sendMessage(ChatColor.RED + "You don't have permission.");
+                    return true;
+                }
+                if (args.length < 3 || !args[2].equalsIgnoreCase("confirm")) {
+                    sender.sendMessage(ChatColor.YELLOW + "This resets kills, deaths and killstreaks for every player.");
+                    sender.sendMessage(ChatColor.YELLOW + "Run /" + label + " season rotate confirm to continue.");
+                    return true;
+                }
+
+                sender.sendMessage(ChatColor.GRAY + "Rotating season...");
+                stats.rotateSeason().whenComplete((next, err) ->
+                        Bukkit.getScheduler().runTask(plugin, () -> {
+                            if (err != null) {
+                                Throwable cause = err.getCause() != null ? err.getCause() : err;
+                                sender.sendMessage(ChatColor.RED + "Season rotation failed: " + cause.getMessage());
+                                return;
+                            }
+                            sender.sendMessage(ChatColor.GREEN + "Season " + next + " started. "
+                                    + "The previous season is being archived in the background.");
+                        })
+                );
+                return true;
+            }
+
+            default:
+                sender.sendMessage(ChatColor.YELLOW + "Usage: /" + label + " season <list|top <id> [page]|rotate confirm>");
+                return true;
+        }
+    }
+
+    /* =========================
+     *  HELPERS
+     * ========================= */
+    private Integer parsePage(CommandSender sender, String[] args, int index) {
+        if (args.length <= index) return 1;
+
+        int page;
+        try {
+            page = Integer.parseInt(args[index]);
+        } catch (NumberFormatException ex) {
+            sender.sendMessage(ChatColor.RED + "Invalid page: " + args[index]);
+            return null;
+        }
+
+        if (page <= 0) {
+            sender.sendMessage(ChatColor.RED + "Page must be 1 or greater.");
+            return null;
+        }
+        if (page > stats.getLeaderboardMaxPage()) {
+            sender.sendMessage(ChatColor.RED + "Page must be at most " + stats.getLeaderboardMaxPage() + ".");
+            return null;
+        }
+        return page;
+    }
+
+    private void sendPage(CommandSender sender, String title, CompletableFuture<List<LeaderEntry>> future,
+                          int page, String nextCommand) {
+        int offset = (page - 1) * stats.getLeaderboardPageSize();
+
+        future.thenAccept(list ->
+                Bukkit.getScheduler().runTask(plugin, () -> {
+                    if (list.isEmpty()) {
+                        sender.sendMessage(ChatColor.GRAY + "No entries on page " + page + ".");
+                        return;
+                    }
+
+                    sender.sendMessage(ChatColor.GOLD + title + " - page " + page);
+                    for (int i = 0; i < list.size(); i++) {
+                        LeaderEntry entry = list.get(i);
+                        sender.sendMessage(ChatColor.YELLOW + "#" + (offset + i + 1) + " "
+                                + ChatColor.WHITE + entry.nickname()
+                                + ChatColor.GRAY + " - " + entry.kills());
+                    }
+                    sender.sendMessage(ChatColor.GRAY + nextCommand + (page + 1) + " for the next page");
+                })
+        );
+    }
+
+    @Override
+    public List<String> onTabComplete(CommandSender sender, Command command, String label, String[] args) {
+        if (args.length == 1) {
+            return List.of("top", "season").stream()
+                    .filter(s -> s.startsWith(args[0].toLowerCase()))
+                    .toList();
+        }
+        if (args.length == 2 && args[0].equalsIgnoreCase("season")) {
+            List<String> subs = sender.hasPermission("pvpsync.admin")
+                    ? List.of("list", "top", "rotate")
+                    : List.of("list", "top");
+            return subs.stream()
+                    .filter(s -> s.startsWith(args[1].toLowerCase()))
+                    .toList();
+        }
+        return List.of();
+    }
+}
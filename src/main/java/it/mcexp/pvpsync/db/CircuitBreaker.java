@@ -0,0 +1,209 @@
+package it.mcexp.pvpsync.db;
+
+import org.bukkit.configuration.ConfigurationSection;
+
+import java.sql.SQLDataException;
+import java.sql.SQLException;
+import java.sql.SQLIntegrityConstraintViolationException;
+import java.util.function.LongSupplier;
+import java.util.logging.Logger;
+
+/**
+ * Circuit breaker per le chiamate a {@link StatsRepository}.
+ *
+ * CLOSED    → le chiamate passano; errori e chiamate lente finiscono in una finestra mobile.
+ * OPEN      → soglia superata: le chiamate falliscono subito con {@link OpenException}.
+ * HALF_OPEN → scaduto openSeconds: passano al massimo halfOpenProbes chiamate di prova;
+ *             tutte ok → CLOSED, una fallita → di nuovo OPEN.
+ *
+ * Gli errori permanenti (vincoli, dati non validi) non contano come guasti:
+ * il database ha risposto, è la singola richiesta a essere sbagliata.
+ */
+public final class CircuitBreaker {
+
+    private enum State { CLOSED, OPEN, HALF_OPEN }
+
+    @FunctionalInterface
+    public interface Call<T> {
+        T run() throws Exception;
+    }
+
+    /** Lanciata senza toccare il database quando il breaker è aperto. */
+    public static final class OpenException extends Exception {
+        private OpenException() {
+            super("database circuit open", null, false, false);
+        }
+    }
+
+    private static final OpenException OPEN = new OpenException();
+
+    private final Logger logger;
+    private final LongSupplier clock;
+    private final int failureRatePercent;
+    private final long slowCallNanos;
+    private final int minimumCalls;
+    private final long openMillis;
+    private final int halfOpenProbes;
+
+    /* =========================
+     *  STATE (guarded by this)
+     * ========================= */
+    private State state = State.CLOSED;
+    private final boolean[] window;
+    private int windowPos;
+    private int windowCount;
+    private int windowFailures;
+    private long openedAt;
+    private int probesInFlight;
+    private int probeSuccesses;
+    /* incrementato a ogni HALF_OPEN: le prove di un giro precedente non contano */
+    private long probeRound;
+
+    public CircuitBreaker(Logger logger, ConfigurationSection c) {
+        this(logger, c, System::currentTimeMillis);
+    }
+
+    /** {@code clock} in millisecondi, sostituibile nei test */
+    CircuitBreaker(Logger logger, ConfigurationSection c, LongSupplier clock) {
+        this.logger = logger;
+        this.clock = clock;
+        this.failureRatePercent = clamp(c != null ? c.getInt("failureRatePercent", 50) : 50, 1, 100);
+        this.slowCallNanos = Math.max(1, c != null ? c.getLong("slowCallMillis", 120) : 120) * 1_000_000L;
+        int windowSize = clamp(c != null ? c.getInt("windowSize", 20) : 20, 1, 1000);
+        this.minimumCalls = clamp(c != null ? c.getInt("minimumCalls", 10) : 10, 1, windowSize);
+        this.openMillis = Math.max(1, c != null ? c.getLong("openSeconds", 10) : 10) * 1000L;
+        this.halfOpenProbes = clamp(c != null ? c.getInt("halfOpenProbes", 3) : 3, 1, 100);
+        this.window = new boolean[windowSize];
+    }
+
+    /**
+     * true se una chiamata adesso verrebbe rifiutata: permette di rispondere
+     * con il fallback senza nemmeno accodare il task.
+     */
+    public synchronized boolean isOpen() {
+        return switch (state) {
+            case CLOSED -> false;
+            case OPEN -> clock.getAsLong() - openedAt < openMillis;
+            case HALF_OPEN -> probesInFlight >= halfOpenProbes;
+        };
+    }
+
+    public <T> T call(Call<T> call) throws Exception {
+        return call(call, System.nanoTime());
+    }
+
+    /**
+     * Come {@link #call(Call)}, ma la latenza parte da {@code startNanos}
+     * (es. l'istante in cui il task è stato accodato), così anche l'attesa
+     * in coda conta come chiamata lenta.
+     */
+    public <T> T call(Call<T> call, long startNanos) throws Exception {
+        long probe = acquire();
+
+        T result;
+        try {
+            result = call.run();
+        } catch (Exception e) {
+            record(isPermanent(e), probe);
+            throw e;
+        }
+        record(System.nanoTime() - startNanos <= slowCallNanos, probe);
+        return result;
+    }
+
+    /**
+     * true se l'errore dipende dalla richiesta e non dalla connessione:
+     * riprovarla darebbe lo stesso risultato.
+     */
+    public static boolean isPermanent(Throwable e) {
+        for (Throwable t = e; t != null; t = t.getCause()) {
+            if (t instanceof SQLIntegrityConstraintViolationException || t instanceof SQLDataException) return true;
+            if (t instanceof SQLException sql && sql.getSQLState() != null
+                    && (sql.getSQLState().startsWith("22") || sql.getSQLState().startsWith("23"))) return true;
+        }
+        return false;
+    }
+
+    /** @return il giro di prova se la chiamata è una prova in HALF_OPEN, altrimenti -1 */
+    private synchronized long acquire() throws OpenException {
+        switch (state) {
+            case CLOSED -> {
+                return -1;
+            }
+            case OPEN -> {
+                if (clock.getAsLong() - openedAt < openMillis) throw OPEN;
+                transition(State.HALF_OPEN);
+                probeRound++;
+                probesInFlight = 0;
+                probeSuccesses = 0;
+            }
+            case HALF_OPEN -> {}
+        }
+
+        if (probesInFlight >= halfOpenProbes) throw OPEN;
+        probesInFlight++;
+        return probeRound;
+    }
+
+    private synchronized void record(boolean success, long probe) {
+        switch (state) {
+            case CLOSED -> {
+                if (probe >= 0) return; // prova conclusa dopo la chiusura
+
+                if (windowCount == window.length) {
+                    if (window[windowPos]) windowFailures--;
+                } else {
+                    windowCount++;
+                }
+                window[windowPos] = !success;
+                if (!success) windowFailures++;
+                windowPos = (windowPos + 1) % window.length;
+
+                if (windowCount >= minimumCalls
+                        && windowFailures * 100 >= failureRatePercent * windowCount) {
+                    logger.warning("Database circuit OPEN: " + windowFailures + "/" + windowCount
+                            + " recent calls failed or were slow, failing fast for "
+                            + (openMillis / 1000) + "s.");
+                    open();
+                }
+            }
+            case HALF_OPEN -> {
+                if (probe != probeRound) return; // partita prima di questo giro di prova
+                probesInFlight--;
+                if (!success) {
+                    logger.warning("Database circuit probe failed, staying OPEN.");
+                    open();
+                } else if (++probeSuccesses >= halfOpenProbes) {
+                    transition(State.CLOSED);
+                    resetWindow();
+                }
+            }
+            case OPEN -> {
+                // chiamata partita prima dell'apertura: ignorata
+            }
+        }
+    }
+
+    private void open() {
+        transition(State.OPEN);
+        openedAt = clock.getAsLong();
+        resetWindow();
+    }
+
+    private void resetWindow() {
+        windowPos = 0;
+        windowCount = 0;
+        windowFailures = 0;
+    }
+
+    private void transition(State next) {
+        if (state == next) return;
+        state = next;
+        if (next == State.CLOSED) logger.info("Database circuit CLOSED: database is responding again.");
+        else if (next == State.HALF_OPEN) logger.info("Database circuit HALF_OPEN: probing database.");
+    }
+
+    private static int clamp(int v, int min, int max) {
+        return Math.max(min, Math.min(v, max));
+    }
+}
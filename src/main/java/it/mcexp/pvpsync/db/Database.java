@@ -6,6 +6,8 @@ import org.bukkit.configuration.ConfigurationSection;
 import org.bukkit.plugin.java.JavaPlugin;
 
 import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
 import java.sql.Statement;
 
 public final class Database {
@@ -59,17 +61,71 @@ public final class Database {
               killstreak INT          NOT NULL DEFAULT 0,
               updated_at TIMESTAMP    NOT NULL DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP,
               PRIMARY KEY (nickname),
-              UNIQUE KEY uq_uuid (uuid)
+              UNIQUE KEY uq_uuid (uuid),
+              KEY idx_kills_nick (kills DESC, nickname ASC)
+            ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4;
+            """;
+
+        String seasons = """
+            CREATE TABLE IF NOT EXISTS pvpsync_seasons (
+              id           INT          NOT NULL AUTO_INCREMENT,
+              started_at   TIMESTAMP    NOT NULL DEFAULT CURRENT_TIMESTAMP,
+              ended_at     TIMESTAMP    NULL DEFAULT NULL,
+              source_table VARCHAR(64)  NULL DEFAULT NULL,
+              archived     BOOLEAN      NOT NULL DEFAULT FALSE,
+              PRIMARY KEY (id)
+            ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4;
+            """;
+
+        String archive = """
+            CREATE TABLE IF NOT EXISTS pvpsync_stats_archive (
+              season_id  INT          NOT NULL,
+              nickname   VARCHAR(16)  NOT NULL,
+              uuid       CHAR(36)     NOT NULL,
+              kills      INT          NOT NULL DEFAULT 0,
+              deaths     INT          NOT NULL DEFAULT 0,
+              killstreak INT          NOT NULL DEFAULT 0,
+              PRIMARY KEY (season_id, nickname),
+              KEY idx_season_kills_nick (season_id, kills DESC, nickname ASC)
             ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4;
             """;
 
         try (Connection con = ds.getConnection(); Statement st = con.createStatement()) {
             st.execute(sql);
+            st.execute(seasons);
+            st.execute(archive);
+            // prima installazione: la stagione in corso è la 1
+            st.execute("INSERT IGNORE INTO pvpsync_seasons (id) VALUES (1)");
+            ensureLeaderboardIndex(con);
         } catch (Exception e) {
             throw new RuntimeException("Failed creating tables", e);
         }
     }
 
+    /**
+     * Tabelle create da versioni precedenti non hanno l'indice usato
+     * dalla paginazione keyset della leaderboard: lo aggiungiamo una volta.
+     */
+    private void ensureLeaderboardIndex(Connection con) throws Exception {
+        String check = """
+            SELECT COUNT(*)
+            FROM information_schema.STATISTICS
+            WHERE TABLE_SCHEMA = DATABASE()
+              AND TABLE_NAME = 'pvpsync_stats'
+              AND INDEX_NAME = 'idx_kills_nick'
+            """;
+
+        try (PreparedStatement ps = con.prepareStatement(check);
+             ResultSet rs = ps.executeQuery()) {
+            if (rs.next() && rs.getInt(1) > 0) return;
+        }
+
+        try (Statement st = con.createStatement()) {
+            st.execute("ALTER TABLE pvpsync_stats ADD INDEX idx_kills_nick (kills DESC, nickname ASC)");
+        }
+        plugin.getLogger().info("Added leaderboard index idx_kills_nick to pvpsync_stats.");
+    }
+
     public Connection getConnection() throws Exception {
         return ds.getConnection();
     }
@@ -0,0 +1,484 @@
+package it.mcexp.pvpsync.db;
+
+import it.mcexp.pvpsync.db.StatsRepository.LeaderEntry;
+import it.mcexp.pvpsync.model.PlayerStats;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.regex.Pattern;
+
+public final class SeasonRepository {
+
+    private static final String ROTATE_LOCK = "pvpsync_season_rotate";
+    private static final String ARCHIVE_LOCK = "pvpsync_season_archive";
+    private static final Pattern RETIRED_TABLE = Pattern.compile("pvpsync_stats_s\\d+");
+
+    private final Database db;
+
+    public SeasonRepository(Database db) {
+        this.db = db;
+    }
+
+    /* =========================
+     *  DATA MODELS
+     * ========================= */
+
+    /** endedAt = 0 per la stagione in corso */
+    public record Season(int id, long startedAt, long endedAt, boolean archived) {}
+
+    /** Stagione chiusa la cui tabella ritirata non è ancora stata archiviata. */
+    public record PendingArchive(int seasonId, String table) {}
+
+    /* =========================
+     *  SEASONS
+     * ========================= */
+    public int currentSeasonId() throws Exception {
+        String sql = "SELECT id FROM pvpsync_seasons WHERE ended_at IS NULL ORDER BY id DESC LIMIT 1";
+        try (Connection con = db.getConnection();
+             PreparedStatement ps = con.prepareStatement(sql);
+             ResultSet rs = ps.executeQuery()) {
+            return rs.next() ? rs.getInt(1) : 0;
+        }
+    }
+
+    public List<Season> listSeasons() throws Exception {
+        String sql = """
+                SELECT id, started_at, ended_at, archived
+                FROM pvpsync_seasons
+                ORDER BY id DESC
+                """;
+        try (Connection con = db.getConnection();
+             PreparedStatement ps = con.prepareStatement(sql);
+             ResultSet rs = ps.executeQuery()) {
+
+            List<Season> list = new ArrayList<>();
+            while (rs.next()) {
+                Timestamp ended = rs.getTimestamp("ended_at");
+                list.add(new Season(
+                        rs.getInt("id"),
+                        rs.getTimestamp("started_at").getTime(),
+                        ended != null ? ended.getTime() : 0L,
+                        rs.getBoolean("archived")
+                ));
+            }
+            return list;
+        }
+    }
+
+    /* =========================
+     *  ROTATION
+     * ========================= */
+
+    /**
+     * Chiude la stagione in corso e ne apre una nuova senza bloccare pvpsync_stats:
+     * - segna in pvpsync_seasons la tabella che verrà ritirata
+     * - crea pvpsync_stats_next con la stessa struttura
+     * - copia a blocchi solo le identità (nickname, uuid) con stats a zero
+     * - ricopia le righe toccate durante la copia (updated_at dall'inizio della copia)
+     * - scambia le tabelle con un unico RENAME TABLE atomico
+     * - ricopia le righe toccate dall'ultimo passaggio al RENAME, anche da altri server
+     * La vecchia tabella resta come pvpsync_stats_s + id in attesa dell'archiviazione.
+     * Se una rotazione precedente si è fermata dopo il RENAME, la riprende da lì
+     * con un passaggio completo, perché l'inizio della copia non è più noto.
+     *
+     * @return id della nuova stagione
+     */
+    public int rotate(int batchSize) throws Exception {
+        try (Connection con = db.getConnection()) {
+
+            // un solo server alla volta può ruotare
+            if (!acquireLock(con, ROTATE_LOCK))
+                throw new IllegalStateException("Season rotation already running on another server");
+
+            try {
+                int current = currentSeasonId();
+                if (current <= 0) throw new IllegalStateException("No current season in pvpsync_seasons");
+
+                String retired = "pvpsync_stats_s" + current;
+
+                if (!tableExists(con, retired)) {
+                    try (PreparedStatement ps = con.prepareStatement(
+                            "UPDATE pvpsync_seasons SET source_table=? WHERE id=?")) {
+                        ps.setString(1, retired);
+                        ps.setInt(2, current);
+                        ps.executeUpdate();
+                    }
+
+                    try (Statement st = con.createStatement()) {
+                        st.execute("DROP TABLE IF EXISTS pvpsync_stats_next");
+                        st.execute("CREATE TABLE pvpsync_stats_next LIKE pvpsync_stats");
+                    }
+
+                    Timestamp copyStart = databaseNow(con);
+                    copyIdentities(con, "pvpsync_stats", "pvpsync_stats_next", batchSize, null);
+
+                    // chi si è registrato dopo il passaggio del cursore
+                    Timestamp catchUpStart = databaseNow(con);
+                    copyIdentities(con, "pvpsync_stats", "pvpsync_stats_next", batchSize, copyStart);
+
+                    try (Statement st = con.createStatement()) {
+                        st.execute("RENAME TABLE pvpsync_stats TO " + retired
+                                + ", pvpsync_stats_next TO pvpsync_stats");
+                    }
+
+                    // chi si è registrato tra l'ultimo passaggio e il RENAME
+                    copyIdentities(con, retired, "pvpsync_stats", batchSize, catchUpStart);
+                } else {
+                    copyIdentities(con, retired, "pvpsync_stats", batchSize, null);
+                }
+
+                return openNextSeason(con, current, retired);
+            } finally {
+                releaseLock(con, ROTATE_LOCK);
+            }
+        }
+    }
+
+    private boolean tableExists(Connection con, String table) throws Exception {
+        String sql = """
+                SELECT COUNT(*)
+                FROM information_schema.TABLES
+                WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = ?
+                """;
+        try (PreparedStatement ps = con.prepareStatement(sql)) {
+            ps.setString(1, table);
+            try (ResultSet rs = ps.executeQuery()) {
+                return rs.next() && rs.getInt(1) > 0;
+            }
+        }
+    }
+
+    /** Ora del database: stesso orologio che scrive updated_at. */
+    private static Timestamp databaseNow(Connection con) throws Exception {
+        try (PreparedStatement ps = con.prepareStatement("SELECT CURRENT_TIMESTAMP");
+             ResultSet rs = ps.executeQuery()) {
+            rs.next();
+            return rs.getTimestamp(1);
+        }
+    }
+
+    /**
+     * Copia a blocchi (keyset su nickname) le identità mancanti da {@code from} a {@code to}.
+     * Con {@code since} copia solo le righe con updated_at da quell'istante in poi:
+     * la lettura scorre comunque la chiave primaria, ma gli INSERT restano pochi.
+     */
+    private void copyIdentities(Connection con, String from, String to, int batchSize, Timestamp since) throws Exception {
+        String select = """
+                SELECT nickname, uuid
+                FROM %s
+                WHERE nickname > ?%s
+                ORDER BY nickname
+                LIMIT ?
+                """.formatted(from, since != null ? " AND updated_at >= ?" : "");
+        String insert = "INSERT IGNORE INTO " + to + " (nickname, uuid) VALUES (?, ?)";
+
+        String cursor = "";
+        while (true) {
+            int read = 0;
+            try (PreparedStatement sel = con.prepareStatement(select);
+                 PreparedStatement ins = con.prepareStatement(insert)) {
+
+                int i = 1;
+                sel.setString(i++, cursor);
+                if (since != null) sel.setTimestamp(i++, since);
+                sel.setInt(i, batchSize);
+                try (ResultSet rs = sel.executeQuery()) {
+                    while (rs.next()) {
+                        cursor = rs.getString("nickname");
+                        ins.setString(1, cursor);
+                        ins.setString(2, rs.getString("uuid"));
+                        ins.addBatch();
+                        read++;
+                    }
+                }
+                if (read > 0) ins.executeBatch();
+            }
+            if (read < batchSize) return;
+        }
+    }
+
+    private int openNextSeason(Connection con, int current, String retired) throws Exception {
+        boolean autoCommit = con.getAutoCommit();
+        con.setAutoCommit(false);
+        try {
+            try (PreparedStatement ps = con.prepareStatement(
+                    "UPDATE pvpsync_seasons SET ended_at=CURRENT_TIMESTAMP, source_table=? WHERE id=?")) {
+                ps.setString(1, retired);
+                ps.setInt(2, current);
+                ps.executeUpdate();
+            }
+
+            int next;
+            try (PreparedStatement ps = con.prepareStatement(
+                    "INSERT INTO pvpsync_seasons (started_at) VALUES (CURRENT_TIMESTAMP)",
+                    Statement.RETURN_GENERATED_KEYS)) {
+                ps.executeUpdate();
+                try (ResultSet rs = ps.getGeneratedKeys()) {
+                    rs.next();
+                    next = rs.getInt(1);
+                }
+            }
+
+            con.commit();
+            return next;
+        } catch (Exception e) {
+            con.rollback();
+            throw e;
+        } finally {
+            con.setAutoCommit(autoCommit);
+        }
+    }
+
+    /* =========================
+     *  ARCHIVAL
+     * ========================= */
+    public List<PendingArchive> pendingArchives() throws Exception {
+        String sql = """
+                SELECT id, source_table
+                FROM pvpsync_seasons
+                WHERE source_table IS NOT NULL AND archived = FALSE
+                  AND ended_at IS NOT NULL
+                ORDER BY id
+                """;
+        try (Connection con = db.getConnection();
+             PreparedStatement ps = con.prepareStatement(sql);
+             ResultSet rs = ps.executeQuery()) {
+
+            List<PendingArchive> list = new ArrayList<>();
+            while (rs.next()) {
+                list.add(new PendingArchive(rs.getInt("id"), rs.getString("source_table")));
+            }
+            return list;
+        }
+    }
+
+    /**
+     * Esegue {@code work} tenendo il lock di archiviazione, così un solo server
+     * alla volta copia e cancella le tabelle ritirate.
+     *
+     * @return vuoto se il lock è già di un altro server
+     */
+    public <T> Optional<T> withArchiveLock(Callable<T> work) throws Exception {
+        try (Connection con = db.getConnection()) {
+            if (!acquireLock(con, ARCHIVE_LOCK)) return Optional.empty();
+            try {
+                return Optional.ofNullable(work.call());
+            } finally {
+                releaseLock(con, ARCHIVE_LOCK);
+            }
+        }
+    }
+
+    /**
+     * Nickname da cui riprendere l'archiviazione (ultimo già copiato, "" se nessuno),
+     * null se la tabella ritirata è già stata cancellata: la copia era completa.
+     */
+    public String archiveCursor(PendingArchive pending) throws Exception {
+        String sql = "SELECT MAX(nickname) FROM pvpsync_stats_archive WHERE season_id=?";
+        try (Connection con = db.getConnection();
+             PreparedStatement ps = con.prepareStatement(sql)) {
+
+            if (!tableExists(con, checkRetired(pending.table()))) return null;
+
+            ps.setInt(1, pending.seasonId());
+            try (ResultSet rs = ps.executeQuery()) {
+                String max = rs.next() ? rs.getString(1) : null;
+                return max != null ? max : "";
+            }
+        }
+    }
+
+    /**
+     * Copia in pvpsync_stats_archive il blocco successivo a {@code cursor}.
+     *
+     * @return ultimo nickname copiato, oppure null se la tabella è esaurita
+     */
+    public String archiveBatch(PendingArchive pending, String cursor, int batchSize) throws Exception {
+        String table = checkRetired(pending.table());
+        String select = """
+                SELECT nickname, uuid, kills, deaths, killstreak
+                FROM %s
+                WHERE nickname > ?
+                ORDER BY nickname
+                LIMIT ?
+                """.formatted(table);
+        String insert = """
+                INSERT IGNORE INTO pvpsync_stats_archive
+                  (season_id, nickname, uuid, kills, deaths, killstreak)
+                VALUES (?, ?, ?, ?, ?, ?)
+                """;
+
+        try (Connection con = db.getConnection();
+             PreparedStatement sel = con.prepareStatement(select);
+             PreparedStatement ins = con.prepareStatement(insert)) {
+
+            sel.setString(1, cursor);
+            sel.setInt(2, batchSize);
+
+            String last = null;
+            try (ResultSet rs = sel.executeQuery()) {
+                while (rs.next()) {
+                    last = rs.getString("nickname");
+                    ins.setInt(1, pending.seasonId());
+                    ins.setString(2, last);
+                    ins.setString(3, rs.getString("uuid"));
+                    ins.setInt(4, rs.getInt("kills"));
+                    ins.setInt(5, rs.getInt("deaths"));
+                    ins.setInt(6, rs.getInt("killstreak"));
+                    ins.addBatch();
+                }
+            }
+
+            if (last != null) ins.executeBatch();
+            return last;
+        }
+    }
+
+    /**
+     * Prima il DROP e poi l'UPDATE: se si interrompe a metà, la stagione resta
+     * pendente e il giro successivo trova la copia già completa e ripete solo l'UPDATE.
+     * Il contrario lascerebbe una tabella ritirata orfana che nessuno cancella più.
+     */
+    public void finishArchive(PendingArchive pending) throws Exception {
+        String table = checkRetired(pending.table());
+        try (Connection con = db.getConnection()) {
+            try (Statement st = con.createStatement()) {
+                st.execute("DROP TABLE IF EXISTS " + table);
+            }
+            try (PreparedStatement ps = con.prepareStatement(
+                    "UPDATE pvpsync_seasons SET archived=TRUE, source_table=NULL WHERE id=?")) {
+                ps.setInt(1, pending.seasonId());
+                ps.executeUpdate();
+            }
+        }
+    }
+
+    /* =========================
+     *  LOCKS (GET_LOCK, legati alla connessione)
+     * ========================= */
+    private static boolean acquireLock(Connection con, String name) throws Exception {
+        try (PreparedStatement ps = con.prepareStatement("SELECT GET_LOCK(?, 0)")) {
+            ps.setString(1, name);
+            try (ResultSet rs = ps.executeQuery()) {
+                return rs.next() && rs.getInt(1) == 1;
+            }
+        }
+    }
+
+    private static void releaseLock(Connection con, String name) throws Exception {
+        try (PreparedStatement ps = con.prepareStatement("SELECT RELEASE_LOCK(?)")) {
+            ps.setString(1, name);
+            ps.executeQuery().close();
+        }
+    }
+
+    private static String checkRetired(String table) {
+        if (table == null || !RETIRED_TABLE.matcher(table).matches())
+            throw new IllegalArgumentException("Unexpected retired table name: " + table);
+        return table;
+    }
+
+    /* =========================
+     *  PAST SEASONS (sola lettura)
+     *  Una stagione chiusa ma non ancora archiviata si legge dalla sua tabella
+     *  ritirata: non riceve più scritture, quindi ha già i valori definitivi.
+     * ========================= */
+
+    /** Tabella ritirata della stagione se è ancora da archiviare, altrimenti null. */
+    private String pendingTable(Connection con, int seasonId) throws Exception {
+        String sql = """
+                SELECT s.source_table
+                FROM pvpsync_seasons s
+                JOIN information_schema.TABLES t
+                  ON t.TABLE_SCHEMA = DATABASE() AND t.TABLE_NAME = s.source_table
+                WHERE s.id=? AND s.archived = FALSE AND s.ended_at IS NOT NULL
+                """;
+        try (PreparedStatement ps = con.prepareStatement(sql)) {
+            ps.setInt(1, seasonId);
+            try (ResultSet rs = ps.executeQuery()) {
+                return rs.next() ? checkRetired(rs.getString(1)) : null;
+            }
+        }
+    }
+
+    public Optional<PlayerStats> findSeasonStats(int seasonId, String nickname) throws Exception {
+        try (Connection con = db.getConnection()) {
+            String table = pendingTable(con, seasonId);
+            String sql = table != null
+                    ? """
+                    SELECT nickname, uuid, kills, deaths, killstreak
+                    FROM %s
+                    WHERE nickname=?
+                    """.formatted(table)
+                    : """
+                    SELECT nickname, uuid, kills, deaths, killstreak
+                    FROM pvpsync_stats_archive
+                    WHERE season_id=? AND nickname=?
+                    """;
+
+            try (PreparedStatement ps = con.prepareStatement(sql)) {
+                int i = 1;
+                if (table == null) ps.setInt(i++, seasonId);
+                ps.setString(i, nickname);
+                try (ResultSet rs = ps.executeQuery()) {
+                    if (!rs.next()) return Optional.empty();
+                    return Optional.of(new PlayerStats(
+                            rs.getString("nickname"),
+                            UUID.fromString(rs.getString("uuid")),
+                            rs.getInt("kills"),
+                            rs.getInt("deaths"),
+                            rs.getInt("killstreak")
+                    ));
+                }
+            }
+        }
+    }
+
+    /** Come {@link StatsRepository#topKillsAfter} ma su una stagione passata. */
+    public List<LeaderEntry> seasonTopKillsAfter(int seasonId, LeaderEntry after, int limit) throws Exception {
+        try (Connection con = db.getConnection()) {
+            String table = pendingTable(con, seasonId);
+
+            List<String> where = new ArrayList<>();
+            if (table == null) where.add("season_id=?");
+            if (after != null) where.add("(kills < ? OR (kills = ? AND nickname > ?))");
+
+            String sql = """
+                    SELECT nickname, kills
+                    FROM %s
+                    %s
+                    ORDER BY kills DESC, nickname ASC
+                    LIMIT ?
+                    """.formatted(
+                    table != null ? table : "pvpsync_stats_archive",
+                    where.isEmpty() ? "" : "WHERE " + String.join(" AND ", where));
+
+            try (PreparedStatement ps = con.prepareStatement(sql)) {
+                int i = 1;
+                if (table == null) ps.setInt(i++, seasonId);
+                if (after != null) {
+                    ps.setInt(i++, after.kills());
+                    ps.setInt(i++, after.kills());
+                    ps.setString(i++, after.nickname());
+                }
+                ps.setInt(i, limit);
+
+                try (ResultSet rs = ps.executeQuery()) {
+                    List<LeaderEntry> list = new ArrayList<>();
+                    while (rs.next()) {
+                        list.add(new LeaderEntry(
+                                rs.getString("nickname"),
+                                rs.getInt("kills")
+                        ));
+                    }
+                    return list;
+                }
+            }
+        }
+    }
+}
\ No newline at end of file
@@ -109,32 +109,28 @@ public final class StatsRepository {
     /* =========================
      *  PVP UPDATE
      * ========================= */
-    public void incrementKill(String nickname) throws Exception {
-        String sql = """
-                UPDATE pvpsync_stats
-                SET kills = kills + 1,
-                    killstreak = killstreak + 1
-                WHERE nickname=?
-                """;
-        try (Connection con = db.getConnection();
-             PreparedStatement ps = con.prepareStatement(sql)) {
-
-            ps.setString(1, nickname);
-            ps.executeUpdate();
-        }
-    }
-
-    public void incrementDeathAndResetStreak(String nickname) throws Exception {
+    /**
+     * Applica in un solo UPDATE più eventi PvP accumulati per lo stesso player.
+     * Se nel frattempo c'è stata una morte, la killstreak riparte da {@code streak};
+     * altrimenti {@code streak} viene sommato a quella attuale.
+     */
+    public void applyDelta(String nickname, int kills, int deaths, boolean resetStreak, int streak) throws Exception {
         String sql = """
                 UPDATE pvpsync_stats
-                SET deaths = deaths + 1,
-                    killstreak = 0
+                SET kills = kills + ?,
+                    deaths = deaths + ?,
+                    killstreak = IF(?, ?, killstreak + ?)
                 WHERE nickname=?
                 """;
         try (Connection con = db.getConnection();
              PreparedStatement ps = con.prepareStatement(sql)) {
 
-            ps.setString(1, nickname);
+            ps.setInt(1, kills);
+            ps.setInt(2, deaths);
+            ps.setBoolean(3, resetStreak);
+            ps.setInt(4, streak);
+            ps.setInt(5, streak);
+            ps.setString(6, nickname);
             ps.executeUpdate();
         }
     }
@@ -142,18 +138,39 @@ public final class StatsRepository {
     /* =========================
      *  LEADERBOARD
      * ========================= */
-    public List<LeaderEntry> topKills(int limit) throws Exception {
-        String sql = """
+    /**
+     * Pagina della leaderboard in paginazione keyset su (kills DESC, nickname ASC):
+     * restituisce le righe che seguono {@code after} (o dall'inizio se null),
+     * leggendo solo {@code limit} voci dall'indice idx_kills_nick.
+     */
+    public List<LeaderEntry> topKillsAfter(LeaderEntry after, int limit) throws Exception {
+        String sql = after == null
+                ? """
                 SELECT nickname, kills
                 FROM pvpsync_stats
                 ORDER BY kills DESC, nickname ASC
                 LIMIT ?
+                """
+                : """
+                SELECT nickname, kills
+                FROM pvpsync_stats
+                WHERE kills < ?
+                   OR (kills = ? AND nickname > ?)
+                ORDER BY kills DESC, nickname ASC
+                LIMIT ?
                 """;
 
         try (Connection con = db.getConnection();
              PreparedStatement ps = con.prepareStatement(sql)) {
 
-            ps.setInt(1, limit);
+            int i = 1;
+            if (after != null) {
+                ps.setInt(i++, after.kills());
+                ps.setInt(i++, after.kills());
+                ps.setString(i++, after.nickname());
+            }
+            ps.setInt(i, limit);
+
             try (ResultSet rs = ps.executeQuery()) {
                 List<LeaderEntry> list = new ArrayList<>();
                 while (rs.next()) {
@@ -8,7 +8,6 @@ import me.clip.placeholderapi.expansion.PlaceholderExpansion;
 import org.bukkit.OfflinePlayer;
 
 import java.text.DecimalFormat;
-import java.util.List;
 import java.util.Optional;
 import java.util.concurrent.TimeUnit;
 
@@ -76,6 +75,14 @@ public final class PvPSyncExpansion extends PlaceholderExpansion {
                     case "kdr":
                         return kdrFormat.format(ps.kdr());
                 }
+            } else {
+                switch (id) {
+                    case "kills":
+                    case "deaths":
+                    case "killstreak":
+                    case "kdr":
+                        return "0";
+                }
             }
         } catch (Exception ignored) {
             return "0";
@@ -128,15 +135,15 @@ public final class PvPSyncExpansion extends PlaceholderExpansion {
             String field = parts[2]; // name | kills
 
             try {
-                List<LeaderEntry> list = stats
-                        .getTopKills(Math.max(pos, 10))
+                Optional<LeaderEntry> opt = stats
+                        .getTopKillsAt(pos)
                         .get(250, TimeUnit.MILLISECONDS);
 
-                if (list.size() < pos) {
+                if (opt.isEmpty()) {
                     return field.equals("name") ? "" : "0";
                 }
 
-                LeaderEntry entry = list.get(pos - 1);
+                LeaderEntry entry = opt.get();
 
                 if (field.equals("name")) {
                     return entry.nickname();
@@ -1,5 +1,9 @@
 package it.mcexp.pvpsync.service;
 
+import it.mcexp.pvpsync.db.CircuitBreaker;
+import it.mcexp.pvpsync.db.SeasonRepository;
+import it.mcexp.pvpsync.db.SeasonRepository.PendingArchive;
+import it.mcexp.pvpsync.db.SeasonRepository.Season;
 import it.mcexp.pvpsync.db.StatsRepository;
 import it.mcexp.pvpsync.db.StatsRepository.LeaderEntry;
 import it.mcexp.pvpsync.model.PlayerStats;
@@ -9,44 +13,135 @@ import org.bukkit.plugin.java.JavaPlugin;
 
 import java.util.*;
 import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
 
 public final class StatsService {
 
     private final JavaPlugin plugin;
     private final StatsRepository repo;
-    private final ExecutorService dbExec;
+    private final SeasonRepository seasons;
+    private final CircuitBreaker breaker;
+
+    /* =========================
+     *  EXECUTORS
+     *  letture: coda limitata, in eccesso vengono scartate (fallback)
+     *  scritture: WriteBuffer + un solo thread di flush, mai scartate
+     * ========================= */
+    private final ThreadPoolExecutor readExec;
+    private final ScheduledExecutorService writeExec;
+    private final WriteBuffer writes = new WriteBuffer();
+    private final AtomicBoolean flushQueued = new AtomicBoolean();
+    private final AtomicBoolean retryQueued = new AtomicBoolean();
+    private final long flushRetryMillis;
+
+    /* =========================
+     *  SEASON ARCHIVAL
+     * ========================= */
+    private final ScheduledExecutorService archiveExec;
+    private final AtomicBoolean archiveQueued = new AtomicBoolean();
+    private final int archiveBatchSize;
+    private final long archiveBatchDelayMillis;
 
     /* =========================
      *  CACHE
+     *  tutte le cache stanno in un'unica istanza di Caches:
+     *  invalidateAll() la sostituisce in un solo passo
      * ========================= */
-    private final Map<String, CacheEntry> cacheByNick = new ConcurrentHashMap<>();
-    private volatile LeaderCache topKillsCache = new LeaderCache(List.of(), 0L);
+    private static final int LIVE = 0;
+    private volatile Caches caches = new Caches();
     private final long expireMillis;
+    private final long cursorExpireMillis;
+    private final int pageSize;
+    private final int maxPage;
 
     private final boolean updateUuidIfNicknameMatches;
     private final boolean updateNicknameIfUuidMatches;
 
-    public StatsService(JavaPlugin plugin, StatsRepository repo) {
+    public StatsService(JavaPlugin plugin, StatsRepository repo, SeasonRepository seasons) {
         this.plugin = plugin;
         this.repo = repo;
+        this.seasons = seasons;
+        this.breaker = new CircuitBreaker(plugin.getLogger(), plugin.getConfig().getConfigurationSection("breaker"));
+
+        ConfigurationSection queue = plugin.getConfig().getConfigurationSection("queue");
+        int readCapacity = queue != null ? queue.getInt("readCapacity", 64) : 64;
+        long retrySec = queue != null ? queue.getLong("flushRetrySeconds", 5) : 5;
+        this.flushRetryMillis = Math.max(1, retrySec) * 1000L;
+
+        this.readExec = new ThreadPoolExecutor(
+                2, 2, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, readCapacity)),
+                r -> {
+                    Thread t = new Thread(r, "PvPStatsSync-DB");
+                    t.setDaemon(true);
+                    return t;
+                },
+                new ThreadPoolExecutor.AbortPolicy()
+        );
 
-        this.dbExec = Executors.newFixedThreadPool(2, r -> {
-            Thread t = new Thread(r, "PvPStatsSync-DB");
+        this.writeExec = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "PvPStatsSync-DB-Write");
             t.setDaemon(true);
             return t;
         });
 
+        this.archiveExec = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "PvPStatsSync-Archive");
+            t.setDaemon(true);
+            return t;
+        });
+
+        ConfigurationSection season = plugin.getConfig().getConfigurationSection("season");
+        int batch = season != null ? season.getInt("archiveBatchSize", 500) : 500;
+        this.archiveBatchSize = Math.max(10, Math.min(batch, 10000));
+        this.archiveBatchDelayMillis = Math.max(0, season != null ? season.getLong("archiveBatchDelayMillis", 50) : 50);
+
         ConfigurationSection cache = plugin.getConfig().getConfigurationSection("cache");
         long expSec = cache != null ? cache.getLong("expireSeconds", 60) : 60;
         this.expireMillis = Math.max(5, expSec) * 1000L;
 
+        ConfigurationSection leaderboard = plugin.getConfig().getConfigurationSection("leaderboard");
+        int size = leaderboard != null ? leaderboard.getInt("pageSize", 10) : 10;
+        this.pageSize = Math.max(1, Math.min(size, 100));
+        int max = leaderboard != null ? leaderboard.getInt("maxPage", 10000) : 10000;
+        this.maxPage = Math.max(1, Math.min(max, 100000));
+        long cursorSec = leaderboard != null ? leaderboard.getLong("cursorExpireSeconds", 600) : 600;
+        this.cursorExpireMillis = Math.max(expireMillis, cursorSec * 1000L);
+
         ConfigurationSection sync = plugin.getConfig().getConfigurationSection("sync");
         this.updateUuidIfNicknameMatches = sync == null || sync.getBoolean("updateUuidIfNicknameMatches", true);
         this.updateNicknameIfUuidMatches = sync == null || sync.getBoolean("updateNicknameIfUuidMatches", true);
     }
 
     public void shutdown() {
-        dbExec.shutdownNow();
+        readExec.shutdownNow();
+        archiveExec.shutdownNow();
+        writeExec.shutdown();
+        try {
+            writeExec.awaitTermination(2, TimeUnit.SECONDS);
+        } catch (InterruptedException ignored) {
+            Thread.currentThread().interrupt();
+        }
+        writeExec.shutdownNow();
+        try {
+            // un flush ancora in corso potrebbe rimettere in buffer un delta dopo il drain finale
+            if (!writeExec.awaitTermination(5, TimeUnit.SECONDS))
+                plugin.getLogger().warning("Write thread still running, final flush may miss its writes.");
+        } catch (InterruptedException ignored) {
+            Thread.currentThread().interrupt();
+        }
+
+        // ultimo flush sul thread di chiusura, ignorando il breaker
+        try {
+            writes.drain(this::applyIdentity, this::applyDelta, this::parkFailure);
+        } catch (Exception e) {
+            plugin.getLogger().severe("Final flush failed, " + writes.size()
+                    + " pending writes lost: " + e.getMessage());
+        }
+        if (writes.parkedSize() > 0) {
+            plugin.getLogger().severe(writes.parkedSize() + " writes rejected by the database were not saved.");
+        }
     }
 
     /* =========================
@@ -55,46 +150,142 @@ public final class StatsService {
     public void ensureIdentity(OfflinePlayer p) {
         if (p == null || p.getName() == null) return;
 
-        String nick = p.getName();
-        UUID uuid = p.getUniqueId();
-
-        CompletableFuture.runAsync(() -> {
-            try {
-                repo.upsertIdentityNicknameFirst(nick, uuid, updateUuidIfNicknameMatches);
-
-                if (updateNicknameIfUuidMatches) {
-                    repo.findByUuid(uuid).ifPresent(ps -> {
-                        if (!ps.nickname().equals(nick)) {
-                            try {
-                                repo.updateNicknameByUuid(uuid, nick);
-                            } catch (Exception ignored) {}
-                        }
-                    });
+        writes.identity(p.getName(), p.getUniqueId());
+        requestFlush();
+    }
+
+    private void applyIdentity(String nick, UUID uuid) throws Exception {
+        repo.upsertIdentityNicknameFirst(nick, uuid, updateUuidIfNicknameMatches);
+
+        if (updateNicknameIfUuidMatches) {
+            repo.findByUuid(uuid).ifPresent(ps -> {
+                if (!ps.nickname().equals(nick)) {
+                    try {
+                        repo.updateNicknameByUuid(uuid, nick);
+                    } catch (Exception ignored) {}
                 }
+            });
+        }
 
-                cacheByNick.remove(nick);
-            } catch (Exception e) {
-                plugin.getLogger().severe("ensureIdentity failed: " + e.getMessage());
-            }
-        }, dbExec);
+        markStale(caches, nick);
     }
 
     /* =========================
      *  PVP EVENTS
      * ========================= */
     public void recordKillAndDeath(String killerNick, String victimNick) {
-        if (killerNick != null) cacheByNick.remove(killerNick);
-        if (victimNick != null) cacheByNick.remove(victimNick);
-        topKillsCache = new LeaderCache(List.of(), 0L);
-
-        CompletableFuture.runAsync(() -> {
-            try {
-                if (victimNick != null) repo.incrementDeathAndResetStreak(victimNick);
-                if (killerNick != null) repo.incrementKill(killerNick);
-            } catch (Exception e) {
-                plugin.getLogger().severe("recordKillAndDeath failed: " + e.getMessage());
+        Caches c = caches;
+        if (killerNick != null) markStale(c, killerNick);
+        if (victimNick != null) markStale(c, victimNick);
+
+        if (victimNick != null) writes.death(victimNick);
+        if (killerNick != null) writes.kill(killerNick);
+        requestFlush();
+    }
+
+    private void applyDelta(String nick, WriteBuffer.StatsDelta d) throws Exception {
+        repo.applyDelta(nick, d.kills(), d.deaths(), d.resetStreak(), d.streak());
+        markStale(caches, nick);
+    }
+
+    /**
+     * Non rimuove la voce: la rende scaduta, così la prossima lettura va sul database
+     * ma con il breaker aperto resta disponibile come fallback.
+     */
+    private static void markStale(Caches c, String nick) {
+        c.byNick().computeIfPresent(nick, (k, e) -> new CacheEntry(e.stats, 0L));
+    }
+
+    /* =========================
+     *  WRITE FLUSH
+     * ========================= */
+    private void requestFlush() {
+        if (!flushQueued.compareAndSet(false, true)) return;
+        try {
+            writeExec.execute(this::flushWrites);
+        } catch (RejectedExecutionException e) {
+            // in chiusura: ci pensa il flush finale di shutdown()
+            flushQueued.set(false);
+        }
+    }
+
+    private void flushWrites() {
+        flushQueued.set(false);
+        if (writes.isEmpty()) return;
+
+        try {
+            writes.drain(
+                    (nick, uuid) -> breaker.call(() -> {
+                        applyIdentity(nick, uuid);
+                        return null;
+                    }),
+                    (nick, delta) -> breaker.call(() -> {
+                        applyDelta(nick, delta);
+                        return null;
+                    }),
+                    this::parkFailure
+            );
+        } catch (Exception e) {
+            if (!(e instanceof CircuitBreaker.OpenException)) {
+                plugin.getLogger().severe("Flushing stats failed, retrying in "
+                        + (flushRetryMillis / 1000) + "s: " + e.getMessage());
             }
-        }, dbExec);
+            scheduleRetry();
+        }
+    }
+
+    /**
+     * Errore permanente (vincolo violato, dato non valido): riprovare non serve e
+     * bloccherebbe tutto il buffer, quindi la voce viene parcheggiata.
+     * Errore di connessione o breaker aperto: la voce resta in coda per il retry.
+     */
+    private boolean parkFailure(String nick, Object entry, Exception e) {
+        if (!CircuitBreaker.isPermanent(e)) return false;
+
+        plugin.getLogger().severe("Database rejected write for " + nick + " (" + entry + "), skipping it: "
+                + e.getMessage());
+        return true;
+    }
+
+    private void scheduleRetry() {
+        if (!retryQueued.compareAndSet(false, true)) return;
+        try {
+            writeExec.schedule(() -> {
+                retryQueued.set(false);
+                requestFlush();
+            }, flushRetryMillis, TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+            retryQueued.set(false);
+        }
+    }
+
+    /* =========================
+     *  READS
+     * ========================= */
+
+    /**
+     * Esegue una lettura sul pool limitato passando dal circuit breaker.
+     * Breaker aperto, coda piena o errore → risponde subito con {@code fallback}.
+     */
+    private <T> CompletableFuture<T> read(String what, CircuitBreaker.Call<T> call, Supplier<T> fallback) {
+        if (breaker.isOpen()) return CompletableFuture.completedFuture(fallback.get());
+
+        // l'attesa in coda fa parte della latenza vista dai placeholder
+        long submittedAt = System.nanoTime();
+        try {
+            return CompletableFuture.supplyAsync(() -> {
+                try {
+                    return breaker.call(call, submittedAt);
+                } catch (CircuitBreaker.OpenException e) {
+                    return fallback.get();
+                } catch (Exception e) {
+                    plugin.getLogger().severe(what + " failed: " + e.getMessage());
+                    return fallback.get();
+                }
+            }, readExec);
+        } catch (RejectedExecutionException e) {
+            return CompletableFuture.completedFuture(fallback.get());
+        }
     }
 
     /* =========================
@@ -104,67 +295,275 @@ public final class StatsService {
         if (nickname == null || nickname.isBlank())
             return CompletableFuture.completedFuture(Optional.empty());
 
-        CacheEntry cached = cacheByNick.get(nickname);
+        Caches c = caches;
+        CacheEntry cached = c.byNick().get(nickname);
         long now = System.currentTimeMillis();
 
         if (cached != null && (now - cached.cachedAt) <= expireMillis) {
             return CompletableFuture.completedFuture(Optional.of(cached.stats));
         }
 
-        return CompletableFuture.supplyAsync(() -> {
-            try {
-                Optional<PlayerStats> ps = repo.findByNickname(nickname);
-                ps.ifPresent(s -> cacheByNick.put(nickname, new CacheEntry(s, System.currentTimeMillis())));
-                return ps;
-            } catch (Exception e) {
-                plugin.getLogger().severe("getStatsByNick failed: " + e.getMessage());
-                return Optional.empty();
-            }
-        }, dbExec);
+        return read("getStatsByNick", () -> {
+            Optional<PlayerStats> ps = repo.findByNickname(nickname);
+            ps.ifPresent(s -> c.byNick().put(nickname, new CacheEntry(s, System.currentTimeMillis())));
+            return ps;
+        }, () -> cached != null ? Optional.of(cached.stats) : Optional.empty());
     }
 
     /* =========================
      *  LEADERBOARD
      * ========================= */
-    public CompletableFuture<List<LeaderEntry>> getTopKills(int limit) {
+    public int getLeaderboardPageSize() {
+        return pageSize;
+    }
+
+    public int getLeaderboardMaxPage() {
+        return maxPage;
+    }
+
+    /**
+     * Pagina {@code page} (1-based) della classifica kill.
+     * Ogni pagina è un segmento di {@code pageSize} voci in cache propria.
+     */
+    public CompletableFuture<List<LeaderEntry>> getTopKillsPage(int page) {
+        return topKillsPage(LIVE, page);
+    }
+
+    /**
+     * Voce alla posizione {@code pos} (1-based): legge solo la pagina che la contiene.
+     */
+    public CompletableFuture<Optional<LeaderEntry>> getTopKillsAt(int pos) {
+        if (pos <= 0) return CompletableFuture.completedFuture(Optional.empty());
+
+        int page = (pos - 1) / pageSize + 1;
+        int index = (pos - 1) % pageSize;
+
+        return getTopKillsPage(page).thenApply(list ->
+                index < list.size() ? Optional.of(list.get(index)) : Optional.empty());
+    }
+
+    /** {@code season} = LIVE per la tabella in uso, altrimenti id di una stagione archiviata */
+    private CompletableFuture<List<LeaderEntry>> topKillsPage(int season, int page) {
+        if (page <= 0 || page > maxPage)
+            return CompletableFuture.completedFuture(List.of());
+
+        Caches c = caches;
+        PageKey key = new PageKey(season, page);
+        LeaderPage cached = c.pages().get(key);
+        if (cached != null && (System.currentTimeMillis() - cached.cachedAt) <= expireMillis) {
+            return CompletableFuture.completedFuture(cached.entries);
+        }
+
+        return read("getTopKillsPage", () -> loadTopKillsPage(c, key),
+                () -> cached != null ? cached.entries : List.of());
+    }
+
+    /**
+     * Legge la pagina partendo dal confine (ultima chiave) della pagina precedente:
+     * con il confine in cache è un solo seek da {@code pageSize} righe.
+     * I confini vivono cursorExpireSeconds, più a lungo del contenuto delle pagine;
+     * solo se mancano si riparte dal confine noto più vicino (o dall'inizio),
+     * registrando i confini di tutte le pagine attraversate.
+     */
+    private List<LeaderEntry> loadTopKillsPage(Caches c, PageKey key) throws Exception {
+        int season = key.season();
+        int page = key.page();
         long now = System.currentTimeMillis();
-        LeaderCache c = topKillsCache;
-
-        if (!c.entries.isEmpty()
-                && (now - c.cachedAt) <= expireMillis
-                && c.entries.size() >= limit) {
-            return CompletableFuture.completedFuture(c.entries);
-        }
-
-        return CompletableFuture.supplyAsync(() -> {
-            try {
-                List<LeaderEntry> list = repo.topKills(Math.max(limit, 10));
-                topKillsCache = new LeaderCache(list, System.currentTimeMillis());
-                return list;
-            } catch (Exception e) {
-                plugin.getLogger().severe("getTopKills failed: " + e.getMessage());
-                return List.of();
-            }
-        }, dbExec);
+
+        int from = page - 1;
+        LeaderEntry cursor = null;
+        for (; from >= 1; from--) {
+            Boundary b = c.boundaries().get(new PageKey(season, from));
+            if (b == null || now - b.cachedAt > cursorExpireMillis) continue;
+            if (b.last == null) return List.of(); // classifica finita prima
+            cursor = b.last;
+            break;
+        }
+        int first = Math.max(from, 0) + 1;
+
+        List<LeaderEntry> rows = topKillsAfter(season, cursor, (page - first + 1) * pageSize);
+
+        List<LeaderEntry> list = List.of();
+        for (int p = first; p <= page; p++) {
+            int start = (p - first) * pageSize;
+            int end = Math.min(start + pageSize, rows.size());
+            List<LeaderEntry> slice = start < end ? List.copyOf(rows.subList(start, end)) : List.of();
+
+            c.boundaries().put(new PageKey(season, p),
+                    new Boundary(slice.size() == pageSize ? slice.get(pageSize - 1) : null, now));
+            if (p == page) list = slice;
+            if (slice.size() < pageSize) break;
+        }
+        c.pages().put(key, new LeaderPage(list, now));
+
+        // pulizia: gira solo dopo una lettura riuscita,
+        // quindi con il database giù le pagine scadute restano disponibili come fallback
+        c.pages().values().removeIf(lp -> now - lp.cachedAt > expireMillis);
+        c.boundaries().values().removeIf(b -> now - b.cachedAt > cursorExpireMillis);
+        return list;
+    }
+
+    private List<LeaderEntry> topKillsAfter(int season, LeaderEntry after, int limit) throws Exception {
+        return season == LIVE
+                ? repo.topKillsAfter(after, limit)
+                : seasons.seasonTopKillsAfter(season, after, limit);
     }
 
     public CompletableFuture<Integer> getPersonalRankByKills(String nickname) {
         if (nickname == null || nickname.isBlank())
             return CompletableFuture.completedFuture(0);
 
-        return CompletableFuture.supplyAsync(() -> {
-            try {
-                return repo.rankByKills(nickname);
-            } catch (Exception e) {
-                plugin.getLogger().severe("rankByKills failed: " + e.getMessage());
-                return 0;
+        return read("rankByKills", () -> repo.rankByKills(nickname), () -> 0);
+    }
+
+    /* =========================
+     *  SEASONS
+     * ========================= */
+
+    /**
+     * Chiude la stagione in corso: la tabella live viene sostituita con RENAME TABLE
+     * e la vecchia archiviata a blocchi in background.
+     * Gira sul thread delle scritture, così le kill già in buffer finiscono nella
+     * stagione che si chiude.
+     *
+     * @return id della nuova stagione
+     */
+    public CompletableFuture<Integer> rotateSeason() {
+        CompletableFuture<Integer> result = new CompletableFuture<>();
+        try {
+            writeExec.execute(() -> {
+                try {
+                    writes.drain(this::applyIdentity, this::applyDelta, this::parkFailure);
+                    int next = seasons.rotate(archiveBatchSize);
+                    invalidateAll();
+
+                    plugin.getLogger().info("Season rotated, season " + next + " started.");
+                    scheduleArchival(0L);
+                    result.complete(next);
+                } catch (Exception e) {
+                    plugin.getLogger().severe("rotateSeason failed: " + e.getMessage());
+                    if (!writes.isEmpty()) scheduleRetry();
+                    result.completeExceptionally(e);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            result.completeExceptionally(e);
+        }
+        return result;
+    }
+
+    public CompletableFuture<List<Season>> getSeasons() {
+        return read("getSeasons", seasons::listSeasons, List::of);
+    }
+
+    /**
+     * Stats di un player in una stagione passata. Finché l'archiviazione è in corso
+     * si leggono dalla tabella ritirata, che ha già i valori definitivi.
+     */
+    public CompletableFuture<Optional<PlayerStats>> getSeasonStats(int seasonId, String nickname) {
+        if (seasonId <= 0 || nickname == null || nickname.isBlank())
+            return CompletableFuture.completedFuture(Optional.empty());
+
+        return read("getSeasonStats", () -> seasons.findSeasonStats(seasonId, nickname), Optional::empty);
+    }
+
+    /**
+     * Pagina della classifica kill di una stagione passata: da pvpsync_stats_archive,
+     * o dalla tabella ritirata se l'archiviazione non è ancora finita.
+     */
+    public CompletableFuture<List<LeaderEntry>> getSeasonTopKillsPage(int seasonId, int page) {
+        if (seasonId <= 0) return CompletableFuture.completedFuture(List.of());
+        return topKillsPage(seasonId, page);
+    }
+
+    /** Svuota in un solo passo la cache dei player e tutte le pagine di classifica. */
+    public void invalidateAll() {
+        caches = new Caches();
+    }
+
+    /**
+     * Toglie dalla cache solo pagine e confini di una stagione passata:
+     * la classifica live e le stats dei player restano valide.
+     */
+    private void invalidateSeason(int seasonId) {
+        Caches c = caches;
+        c.pages().keySet().removeIf(k -> k.season() == seasonId);
+        c.boundaries().keySet().removeIf(k -> k.season() == seasonId);
+    }
+
+    /** Riprende le archiviazioni rimaste a metà (riavvio o errore durante la copia). */
+    public void resumeArchival() {
+        scheduleArchival(0L);
+    }
+
+    private void scheduleArchival(long delayMillis) {
+        if (!archiveQueued.compareAndSet(false, true)) return;
+        try {
+            archiveExec.schedule(this::archivePending, delayMillis, TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+            archiveQueued.set(false);
+        }
+    }
+
+    /**
+     * L'archiviazione non passa dal breaker: i blocchi sono lenti per natura e non
+     * devono aprirlo a scapito dei placeholder. Si limita a fermarsi quando è aperto.
+     */
+    private void archivePending() {
+        archiveQueued.set(false);
+        try {
+            if (breaker.isOpen()) {
+                scheduleArchival(flushRetryMillis);
+                return;
+            }
+
+            // vuoto: un altro server sta archiviando, si ricontrolla più tardi
+            Optional<Boolean> done = seasons.withArchiveLock(this::archiveLocked);
+            if (done.isEmpty() || !done.get()) scheduleArchival(flushRetryMillis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            plugin.getLogger().severe("Season archival failed, retrying in "
+                    + (flushRetryMillis / 1000) + "s: " + e.getMessage());
+            scheduleArchival(flushRetryMillis);
+        }
+    }
+
+    /** @return false se interrotta perché il breaker si è aperto */
+    private boolean archiveLocked() throws Exception {
+        // riletto sotto lock: un altro server può aver già finito
+        for (PendingArchive pending : seasons.pendingArchives()) {
+            String cursor = seasons.archiveCursor(pending);
+
+            while (cursor != null) {
+                if (breaker.isOpen()) return false;
+                cursor = seasons.archiveBatch(pending, cursor, archiveBatchSize);
+                if (cursor != null && archiveBatchDelayMillis > 0) Thread.sleep(archiveBatchDelayMillis);
             }
-        }, dbExec);
+
+            seasons.finishArchive(pending);
+            invalidateSeason(pending.seasonId());
+            plugin.getLogger().info("Season " + pending.seasonId() + " archived.");
+        }
+        return true;
     }
 
     /* =========================
      *  CACHE RECORDS
      * ========================= */
     private record CacheEntry(PlayerStats stats, long cachedAt) {}
-    private record LeaderCache(List<LeaderEntry> entries, long cachedAt) {}
-}
\ No newline at end of file
+    private record LeaderPage(List<LeaderEntry> entries, long cachedAt) {}
+    private record PageKey(int season, int page) {}
+    /** ultima chiave della pagina, null se la classifica finisce lì */
+    private record Boundary(LeaderEntry last, long cachedAt) {}
+
+    private record Caches(
+            Map<String, CacheEntry> byNick,
+            Map<PageKey, LeaderPage> pages,
+            Map<PageKey, Boundary> boundaries
+    ) {
+        Caches() {
+            this(new ConcurrentHashMap<>(), new ConcurrentHashMap<>(), new ConcurrentHashMap<>());
+        }
+    }
+}
@@ -0,0 +1,125 @@
+package it.mcexp.pvpsync.service;
+
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Buffer delle scritture verso il database.
+ *
+ * Le scritture non vengono mai scartate: gli eventi dello stesso player si fondono
+ * in un unico delta, quindi il buffer cresce con il numero di player distinti e non
+ * con il numero di kill. Se il flush fallisce per un errore temporaneo, il delta torna
+ * nel buffer; se l'errore è permanente per quella voce, la voce viene parcheggiata
+ * e il flush prosegue con le altre.
+ */
+final class WriteBuffer {
+
+    @FunctionalInterface
+    interface Sink<V> {
+        void accept(String nickname, V value) throws Exception;
+    }
+
+    /**
+     * Decide cosa fare di una voce fallita: true → errore permanente, la voce viene
+     * parcheggiata; false → errore temporaneo, la voce torna in coda e il drain si ferma.
+     */
+    @FunctionalInterface
+    interface FailureHandler {
+        boolean park(String nickname, Object entry, Exception e);
+    }
+
+    /**
+     * Eventi PvP accumulati per un player. Se {@code resetStreak} è true c'è stata
+     * almeno una morte e {@code streak} sono le kill fatte dopo l'ultima;
+     * altrimenti {@code streak} va sommato alla killstreak attuale.
+     */
+    record StatsDelta(int kills, int deaths, boolean resetStreak, int streak) {
+        static final StatsDelta KILL = new StatsDelta(1, 0, false, 1);
+        static final StatsDelta DEATH = new StatsDelta(0, 1, true, 0);
+
+        /** this seguito da {@code later} */
+        StatsDelta then(StatsDelta later) {
+            return new StatsDelta(
+                    kills + later.kills,
+                    deaths + later.deaths,
+                    resetStreak || later.resetStreak,
+                    later.resetStreak ? later.streak : streak + later.streak
+            );
+        }
+    }
+
+    private final Map<String, UUID> identities = new ConcurrentHashMap<>();
+    private final Map<String, StatsDelta> deltas = new ConcurrentHashMap<>();
+
+    /* voci con errore permanente: fuori dal flush finché un'identità nuova non le sblocca */
+    private final Map<String, UUID> parkedIdentities = new ConcurrentHashMap<>();
+    private final Map<String, StatsDelta> parkedDeltas = new ConcurrentHashMap<>();
+
+    void identity(String nickname, UUID uuid) {
+        parkedIdentities.remove(nickname);
+        identities.put(nickname, uuid);
+    }
+
+    void kill(String nickname) {
+        deltas.merge(nickname, StatsDelta.KILL, StatsDelta::then);
+    }
+
+    void death(String nickname) {
+        deltas.merge(nickname, StatsDelta.DEATH, StatsDelta::then);
+    }
+
+    boolean isEmpty() {
+        return identities.isEmpty() && deltas.isEmpty();
+    }
+
+    int size() {
+        return identities.size() + deltas.size();
+    }
+
+    int parkedSize() {
+        return parkedIdentities.size() + parkedDeltas.size();
+    }
+
+    /**
+     * Svuota prima le identità (la riga deve esistere prima degli UPDATE) e poi i delta.
+     * Errore permanente: la voce viene parcheggiata e si prosegue con le altre.
+     * Errore temporaneo: la voce torna in coda e l'eccezione viene rilanciata.
+     */
+    void drain(Sink<UUID> identitySink, Sink<StatsDelta> deltaSink, FailureHandler failures) throws Exception {
+        for (String nick : identities.keySet()) {
+            UUID uuid = identities.remove(nick);
+            if (uuid == null) continue;
+            try {
+                identitySink.accept(nick, uuid);
+            } catch (Exception e) {
+                if (failures.park(nick, uuid, e)) {
+                    parkedIdentities.put(nick, uuid);
+                    continue;
+                }
+                identities.putIfAbsent(nick, uuid);
+                throw e;
+            }
+
+            // identità sistemata: i delta parcheggiati per questo nick tornano in coda
+            StatsDelta parked = parkedDeltas.remove(nick);
+            if (parked != null) deltas.merge(nick, parked, (newer, old) -> old.then(newer));
+        }
+
+        for (String nick : deltas.keySet()) {
+            StatsDelta delta = deltas.remove(nick);
+            if (delta == null) continue;
+            try {
+                deltaSink.accept(nick, delta);
+            } catch (Exception e) {
+                if (failures.park(nick, delta, e)) {
+                    parkedDeltas.merge(nick, delta, StatsDelta::then);
+                    continue;
+                }
+                // il delta fallito precede quelli arrivati nel frattempo
+                deltas.merge(nick, delta, (newer, failed) -> failed.then(newer));
+                throw e;
+            }
+        }
+    }
+}
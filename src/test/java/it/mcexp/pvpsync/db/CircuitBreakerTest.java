@@ -0,0 +1,209 @@
+package it.mcexp.pvpsync.db;
+
+import org.bukkit.configuration.MemoryConfiguration;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.SQLException;
+import java.sql.SQLIntegrityConstraintViolationException;
+import java.sql.SQLTransientConnectionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CircuitBreakerTest {
+
+    private static final Logger LOG = Logger.getLogger("CircuitBreakerTest");
+    private static final CircuitBreaker.Call<String> OK = () -> "ok";
+    private static final CircuitBreaker.Call<String> FAIL = () -> {
+        throw new SQLTransientConnectionException("connection lost");
+    };
+
+    private volatile long now;
+    private CircuitBreaker breaker;
+
+    @BeforeEach
+    void setUp() {
+        MemoryConfiguration c = new MemoryConfiguration();
+        c.set("failureRatePercent", 50);
+        c.set("slowCallMillis", 1000);
+        c.set("windowSize", 4);
+        c.set("minimumCalls", 4);
+        c.set("openSeconds", 10);
+        c.set("halfOpenProbes", 2);
+
+        now = 1_000_000L;
+        breaker = new CircuitBreaker(LOG, c, () -> now);
+    }
+
+    private void trip() {
+        for (int i = 0; i < 4; i++) assertThrows(SQLException.class, () -> breaker.call(FAIL));
+        assertTrue(breaker.isOpen());
+    }
+
+    private void elapseOpenPeriod() {
+        now += 10_000L;
+    }
+
+    /* =========================
+     *  CLOSED
+     * ========================= */
+    @Test
+    void staysClosedBelowMinimumCalls() {
+        for (int i = 0; i < 3; i++) assertThrows(SQLException.class, () -> breaker.call(FAIL));
+
+        assertFalse(breaker.isOpen());
+    }
+
+    @Test
+    void opensWhenFailureRateIsReached() throws Exception {
+        breaker.call(OK);
+        breaker.call(OK);
+        assertThrows(SQLException.class, () -> breaker.call(FAIL));
+        assertFalse(breaker.isOpen());
+
+        assertThrows(SQLException.class, () -> breaker.call(FAIL));
+        assertTrue(breaker.isOpen());
+    }
+
+    @Test
+    void slowCallsCountAsFailures() throws Exception {
+        // latenza misurata dall'accodamento: 2s fa è oltre slowCallMillis
+        long queuedAt = System.nanoTime() - TimeUnit.SECONDS.toNanos(2);
+        for (int i = 0; i < 4; i++) assertEquals("ok", breaker.call(OK, queuedAt));
+
+        assertTrue(breaker.isOpen());
+    }
+
+    @Test
+    void permanentErrorsDoNotOpenTheCircuit() {
+        CircuitBreaker.Call<String> duplicate = () -> {
+            throw new SQLIntegrityConstraintViolationException("Duplicate entry", "23000", 1062);
+        };
+        for (int i = 0; i < 4; i++) assertThrows(SQLException.class, () -> breaker.call(duplicate));
+
+        assertFalse(breaker.isOpen());
+    }
+
+    @Test
+    void classifiesPermanentErrors() {
+        assertTrue(CircuitBreaker.isPermanent(new SQLIntegrityConstraintViolationException()));
+        assertTrue(CircuitBreaker.isPermanent(new SQLException("Data too long", "22001", 1406)));
+        assertTrue(CircuitBreaker.isPermanent(new RuntimeException(new SQLException("dup", "23000"))));
+        assertFalse(CircuitBreaker.isPermanent(new SQLTransientConnectionException()));
+        assertFalse(CircuitBreaker.isPermanent(new SQLException("Communications link failure", "08S01")));
+    }
+
+    /* =========================
+     *  OPEN
+     * ========================= */
+    @Test
+    void failsFastWhileOpen() {
+        trip();
+
+        assertThrows(CircuitBreaker.OpenException.class, () -> breaker.call(() -> fail("call should not run")));
+    }
+
+    /* =========================
+     *  HALF_OPEN
+     * ========================= */
+    @Test
+    void closesAfterEnoughSuccessfulProbes() throws Exception {
+        trip();
+        elapseOpenPeriod();
+        assertFalse(breaker.isOpen());
+
+        breaker.call(OK);
+        assertFalse(breaker.isOpen());
+        breaker.call(OK);
+
+        // chiuso con finestra azzerata: servono di nuovo minimumCalls errori
+        for (int i = 0; i < 3; i++) assertThrows(SQLException.class, () -> breaker.call(FAIL));
+        assertFalse(breaker.isOpen());
+    }
+
+    @Test
+    void reopensWhenAProbeFails() {
+        trip();
+        elapseOpenPeriod();
+
+        assertThrows(SQLException.class, () -> breaker.call(FAIL));
+
+        assertTrue(breaker.isOpen());
+        assertThrows(CircuitBreaker.OpenException.class, () -> breaker.call(OK));
+    }
+
+    @Test
+    void limitsConcurrentProbes() throws Exception {
+        trip();
+        elapseOpenPeriod();
+
+        ExecutorService exec = Executors.newFixedThreadPool(2);
+        CountDownLatch started = new CountDownLatch(2);
+        CountDownLatch release = new CountDownLatch(1);
+        try {
+            CircuitBreaker.Call<String> blocking = () -> {
+                started.countDown();
+                release.await();
+                return "ok";
+            };
+            Future<String> a = exec.submit(() -> breaker.call(blocking));
+            Future<String> b = exec.submit(() -> breaker.call(blocking));
+            assertTrue(started.await(5, TimeUnit.SECONDS));
+
+            assertTrue(breaker.isOpen());
+            assertThrows(CircuitBreaker.OpenException.class, () -> breaker.call(OK));
+
+            release.countDown();
+            assertEquals("ok", a.get(5, TimeUnit.SECONDS));
+            assertEquals("ok", b.get(5, TimeUnit.SECONDS));
+        } finally {
+            release.countDown();
+            exec.shutdownNow();
+        }
+        assertFalse(breaker.isOpen());
+    }
+
+    @Test
+    void probesFromAnEarlierRoundDoNotLeakIntoTheNext() throws Exception {
+        trip();
+        elapseOpenPeriod();
+
+        ExecutorService exec = Executors.newSingleThreadExecutor();
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        try {
+            // prova lenta del primo giro, ancora in corso quando un'altra prova fallisce
+            Future<String> stale = exec.submit(() -> breaker.call(() -> {
+                started.countDown();
+                release.await();
+                return "ok";
+            }));
+            assertTrue(started.await(5, TimeUnit.SECONDS));
+
+            assertThrows(SQLException.class, () -> breaker.call(FAIL));
+            assertTrue(breaker.isOpen());
+
+            // nuovo giro di prova: la prova vecchia finisce qui e non deve
+            // liberare un posto né contare come successo
+            elapseOpenPeriod();
+            assertFalse(breaker.isOpen());
+            breaker.call(OK);
+            release.countDown();
+            assertEquals("ok", stale.get(5, TimeUnit.SECONDS));
+        } finally {
+            release.countDown();
+            exec.shutdownNow();
+        }
+
+        // una sola prova valida su due: ancora HALF_OPEN, un errore lo riapre
+        assertFalse(breaker.isOpen());
+        assertThrows(SQLException.class, () -> breaker.call(FAIL));
+        assertTrue(breaker.isOpen());
+    }
+}
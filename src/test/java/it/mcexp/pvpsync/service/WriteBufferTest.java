@@ -0,0 +1,149 @@
+package it.mcexp.pvpsync.service;
+
+import it.mcexp.pvpsync.service.WriteBuffer.StatsDelta;
+import org.junit.jupiter.api.Test;
+
+import java.sql.SQLException;
+import java.sql.SQLIntegrityConstraintViolationException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class WriteBufferTest {
+
+    private static final WriteBuffer.Sink<UUID> NO_IDENTITY = (nick, uuid) -> {};
+    private static final WriteBuffer.FailureHandler PARK_INTEGRITY =
+            (nick, entry, e) -> e instanceof SQLIntegrityConstraintViolationException;
+
+    /* =========================
+     *  StatsDelta.then
+     * ========================= */
+    @Test
+    void killsAddToCurrentStreak() {
+        StatsDelta d = StatsDelta.KILL.then(StatsDelta.KILL).then(StatsDelta.KILL);
+
+        assertEquals(new StatsDelta(3, 0, false, 3), d);
+    }
+
+    @Test
+    void deathResetsStreakAndKeepsKillsAfterIt() {
+        StatsDelta d = StatsDelta.KILL.then(StatsDelta.KILL)
+                .then(StatsDelta.DEATH)
+                .then(StatsDelta.KILL);
+
+        assertEquals(new StatsDelta(3, 1, true, 1), d);
+    }
+
+    @Test
+    void killsAfterDeathAreNotLostWhenMergingWithoutReset() {
+        StatsDelta earlier = StatsDelta.DEATH.then(StatsDelta.KILL);
+        StatsDelta later = StatsDelta.KILL.then(StatsDelta.KILL);
+
+        assertEquals(new StatsDelta(3, 1, true, 3), earlier.then(later));
+    }
+
+    @Test
+    void laterResetDiscardsEarlierStreak() {
+        StatsDelta earlier = StatsDelta.KILL.then(StatsDelta.KILL);
+        StatsDelta later = StatsDelta.DEATH;
+
+        assertEquals(new StatsDelta(2, 1, true, 0), earlier.then(later));
+    }
+
+    @Test
+    void thenIsNotCommutative() {
+        StatsDelta kill = StatsDelta.KILL;
+        StatsDelta death = StatsDelta.DEATH;
+
+        assertEquals(new StatsDelta(1, 1, true, 0), kill.then(death));
+        assertEquals(new StatsDelta(1, 1, true, 1), death.then(kill));
+    }
+
+    /* =========================
+     *  DRAIN
+     * ========================= */
+    @Test
+    void failedDeltaGoesBeforeDeltasBufferedDuringTheFlush() {
+        WriteBuffer buf = new WriteBuffer();
+        buf.kill("alice");
+        buf.kill("alice");
+
+        // durante il flush fallito arriva una morte: il delta rimesso in coda
+        // deve risultare kill, kill, morte (streak azzerata), non il contrario
+        assertThrows(SQLException.class, () -> buf.drain(NO_IDENTITY, (nick, d) -> {
+            buf.death(nick);
+            throw new SQLException("connection lost");
+        }, PARK_INTEGRITY));
+
+        Map<String, StatsDelta> applied = new HashMap<>();
+        assertDoesNotThrow(() -> buf.drain(NO_IDENTITY, applied::put, PARK_INTEGRITY));
+
+        assertEquals(new StatsDelta(2, 1, true, 0), applied.get("alice"));
+        assertTrue(buf.isEmpty());
+    }
+
+    @Test
+    void transientFailureStopsDrainAndKeepsEntry() {
+        WriteBuffer buf = new WriteBuffer();
+        buf.kill("alice");
+
+        assertThrows(SQLException.class, () -> buf.drain(NO_IDENTITY, (nick, d) -> {
+            throw new SQLException("connection lost");
+        }, PARK_INTEGRITY));
+
+        assertEquals(1, buf.size());
+        assertEquals(0, buf.parkedSize());
+    }
+
+    @Test
+    void permanentFailureIsParkedAndDrainContinues() throws Exception {
+        WriteBuffer buf = new WriteBuffer();
+        buf.identity("dup", UUID.randomUUID());
+        buf.identity("bob", UUID.randomUUID());
+        buf.kill("dup");
+        buf.kill("bob");
+
+        List<String> identities = new ArrayList<>();
+        List<String> deltas = new ArrayList<>();
+        buf.drain(
+                (nick, uuid) -> {
+                    if (nick.equals("dup")) throw new SQLIntegrityConstraintViolationException("Duplicate entry");
+                    identities.add(nick);
+                },
+                (nick, d) -> {
+                    if (nick.equals("dup")) throw new SQLIntegrityConstraintViolationException("Duplicate entry");
+                    deltas.add(nick);
+                },
+                PARK_INTEGRITY);
+
+        assertEquals(List.of("bob"), identities);
+        assertEquals(List.of("bob"), deltas);
+        assertTrue(buf.isEmpty());
+        assertEquals(2, buf.parkedSize());
+    }
+
+    @Test
+    void newIdentityReleasesParkedDeltas() throws Exception {
+        WriteBuffer buf = new WriteBuffer();
+        UUID uuid = UUID.randomUUID();
+        buf.kill("alice");
+
+        buf.drain(NO_IDENTITY, (nick, d) -> {
+            throw new SQLIntegrityConstraintViolationException("no row");
+        }, PARK_INTEGRITY);
+        assertEquals(1, buf.parkedSize());
+
+        buf.death("alice");
+        buf.identity("alice", uuid);
+
+        Map<String, StatsDelta> applied = new HashMap<>();
+        buf.drain(NO_IDENTITY, applied::put, PARK_INTEGRITY);
+
+        assertEquals(new StatsDelta(1, 1, true, 0), applied.get("alice"));
+        assertEquals(0, buf.parkedSize());
+    }
+}